@@ -0,0 +1,67 @@
+package dev.roman.jpapitfalls.persistence;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the number of managed entities in the current persistence context bounded
+ * during long write transactions.
+ * <p>
+ * Every saved entity stays managed until the transaction ends, so heap usage and
+ * the cost of each flush (dirty checking) grow with the size of the transaction.
+ * Calling {@link #checkpoint()} after writes flushes pending changes and clears the
+ * context once it reaches {@link PersistenceContextProperties#getFlushEvery()} entities.
+ * <p>
+ * Clearing detaches every entity loaded so far, so callers must not rely on
+ * previously returned instances being managed after a checkpoint.
+ * Oversized sessions are reported by {@link PersistenceContextSizeListener}.
+ */
+@Component
+@RequiredArgsConstructor
+public class BoundedPersistenceContext {
+
+    private final PersistenceContextProperties properties;
+
+    private final EntityManager entityManager;
+
+    /**
+     * Saves entities one by one, running a {@link #checkpoint()} after each save.
+     *
+     * @return the saved instances, which may already be detached by a later checkpoint
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public <T> List<T> saveAll(JpaRepository<T, ?> repository, Iterable<T> entities) {
+        List<T> result = new ArrayList<>();
+        for (T entity : entities) {
+            result.add(repository.save(entity));
+            checkpoint();
+        }
+        return result;
+    }
+
+    /**
+     * Flushes and clears the persistence context once it holds the configured number
+     * of managed entities. Does nothing when flushing is disabled.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void checkpoint() {
+        int flushEvery = properties.getFlushEvery();
+        if (flushEvery > 0 && getManagedEntityCount() >= flushEvery) {
+            entityManager.flush();
+            entityManager.clear();
+        }
+    }
+
+    public int getManagedEntityCount() {
+        return entityManager.unwrap(Session.class).getStatistics().getEntityCount();
+    }
+
+}
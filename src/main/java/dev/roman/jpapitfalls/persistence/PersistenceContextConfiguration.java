@@ -0,0 +1,25 @@
+package dev.roman.jpapitfalls.persistence;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Enables {@link PersistenceContextProperties} and registers
+ * {@link PersistenceContextSizeListener} for every Hibernate session.
+ */
+@Configuration
+@EnableConfigurationProperties(PersistenceContextProperties.class)
+public class PersistenceContextConfiguration {
+
+    @Bean
+    HibernatePropertiesCustomizer persistenceContextSizeListenerCustomizer(PersistenceContextProperties properties) {
+        PersistenceContextSizeListener.setWarnThreshold(properties.getWarnThreshold());
+        // Hibernate accepts a single auto session listener, so keep one that is already configured
+        return hibernateProperties -> hibernateProperties.putIfAbsent(
+                AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, PersistenceContextSizeListener.class.getName());
+    }
+
+}
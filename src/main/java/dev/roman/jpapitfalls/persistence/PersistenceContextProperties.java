@@ -0,0 +1,29 @@
+package dev.roman.jpapitfalls.persistence;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Limits for the number of entities kept managed by a single persistence context.
+ * Bound to the {@code jpapitfalls.persistence-context} prefix.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "jpapitfalls.persistence-context")
+public class PersistenceContextProperties {
+
+    /**
+     * Flush and clear the persistence context once it holds this many managed entities.
+     * A value of zero or less disables flushing and clearing.
+     */
+    private int flushEvery = 50;
+
+    /**
+     * Log a warning when a session flushes with more than this many managed entities,
+     * whether or not it uses {@link BoundedPersistenceContext}. Each session is reported at most once.
+     * A value of zero or less disables the warning.
+     */
+    private int warnThreshold = 1000;
+
+}
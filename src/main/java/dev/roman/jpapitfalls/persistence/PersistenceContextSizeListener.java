@@ -0,0 +1,45 @@
+package dev.roman.jpapitfalls.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionEventListener;
+
+/**
+ * Warns when a session flushes with more managed entities than
+ * {@link PersistenceContextProperties#getWarnThreshold()}.
+ * <p>
+ * Hibernate creates one instance per session and reports every flush to it, so this
+ * also covers transactions that don't use {@link BoundedPersistenceContext}.
+ * Each session is reported at most once, however often it grows above the threshold.
+ */
+@Slf4j
+public class PersistenceContextSizeListener implements SessionEventListener {
+
+    // Set from configuration, since Hibernate instantiates session listeners itself
+    private static volatile int warnThreshold;
+
+    private boolean warned;
+
+    static void setWarnThreshold(int warnThreshold) {
+        PersistenceContextSizeListener.warnThreshold = warnThreshold;
+    }
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        checkManagedEntityCount(numberOfEntities);
+    }
+
+    @Override
+    public void partialFlushEnd(int numberOfEntities, int numberOfCollections) {
+        checkManagedEntityCount(numberOfEntities);
+    }
+
+    private void checkManagedEntityCount(int managedEntities) {
+        int threshold = warnThreshold;
+        if (!warned && threshold > 0 && managedEntities > threshold) {
+            warned = true;
+            log.warn("Persistence context holds {} managed entities, more than the threshold of {}",
+                    managedEntities, threshold);
+        }
+    }
+
+}
@@ -0,0 +1,187 @@
+package dev.roman.jpapitfalls.repository;
+
+import dev.roman.jpapitfalls.entity.Article;
+import dev.roman.jpapitfalls.entity.Comment;
+import dev.roman.jpapitfalls.persistence.BoundedPersistenceContext;
+import dev.roman.jpapitfalls.persistence.PersistenceContextConfiguration;
+import dev.roman.jpapitfalls.persistence.PersistenceContextProperties;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class demonstrates that every entity saved in a long transaction stays managed
+ * by the persistence context until the transaction ends. Memory usage and the cost
+ * of each flush therefore grow with the number of written entities.
+ */
+@Testcontainers
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({BoundedPersistenceContext.class, PersistenceContextConfiguration.class})
+@ExtendWith(OutputCaptureExtension.class)
+public class UnboundedPersistenceContextInLongTransaction {
+
+    @Container
+    public static PostgreSQLContainer database = new PostgreSQLContainer("postgres:latest");
+
+    @DynamicPropertySource
+    public static void setDatasourceProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", database::getJdbcUrl);
+        registry.add("spring.datasource.username", database::getUsername);
+        registry.add("spring.datasource.password", database::getPassword);
+        registry.add("jpapitfalls.persistence-context.flush-every", () -> 25);
+        registry.add("jpapitfalls.persistence-context.warn-threshold", () -> 500);
+    }
+
+    @Autowired
+    ArticleRepository articleRepository;
+
+    @Autowired
+    CommentRepository commentRepository;
+
+    @Autowired
+    BoundedPersistenceContext boundedPersistenceContext;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    static final String WARNING = "Persistence context holds 1100 managed entities, more than the threshold of 500";
+
+    /**
+     * In this method, every saved article and comment stays in the persistence context,
+     * so it holds all 1100 entities by the end of the transaction.
+     * The oversized persistence context is reported once, even though it is flushed twice.
+     */
+    @Test
+    void showPersistenceContextGrowsInLongTransaction(CapturedOutput output) {
+        for (int i = 1; i <= 100; i++) {
+            Article article = articleRepository.save(generateArticle(i));
+            commentRepository.saveAll(generateComments(article, 10));
+        }
+
+        entityManager.flush();
+        entityManager.flush();
+
+        assertEquals(1100, boundedPersistenceContext.getManagedEntityCount());
+        assertEquals(1, countOccurrences(output.getOut(), WARNING));
+    }
+
+    /**
+     * In this method, flushing is disabled (flush-every = 0),
+     * so checkpoints never clear the persistence context and it keeps all 1100 entities.
+     */
+    @Test
+    void showDisabledFlushingLeavesPersistenceContextUnbounded(CapturedOutput output) {
+        PersistenceContextProperties unbounded = new PersistenceContextProperties();
+        unbounded.setFlushEvery(0);
+        BoundedPersistenceContext disabled = new BoundedPersistenceContext(unbounded, entityManager);
+
+        for (int i = 1; i <= 100; i++) {
+            Article article = articleRepository.save(generateArticle(i));
+            disabled.checkpoint();
+            disabled.saveAll(commentRepository, generateComments(article, 10));
+        }
+
+        assertEquals(1100, disabled.getManagedEntityCount());
+
+        entityManager.flush();
+
+        assertEquals(1, countOccurrences(output.getOut(), WARNING));
+    }
+
+    /**
+     * In this method, the persistence context is flushed and cleared every 25 entities,
+     * so the number of managed entities never exceeds that limit.
+     */
+    @Test
+    void showBoundedPersistenceContextWithPeriodicFlushAndClear(CapturedOutput output) {
+        for (int i = 1; i <= 100; i++) {
+            Article article = articleRepository.save(generateArticle(i));
+            boundedPersistenceContext.checkpoint();
+            boundedPersistenceContext.saveAll(commentRepository, generateComments(article, 10));
+        }
+
+        assertTrue(boundedPersistenceContext.getManagedEntityCount() < 25);
+        assertEquals(100, articleRepository.count());
+        assertEquals(1000, commentRepository.count());
+        assertFalse(output.getOut().contains("Persistence context holds"));
+    }
+
+    /**
+     * In this method, the persistence context grows above the threshold, is cleared and grows above it again.
+     * The session is reported only once.
+     */
+    @Test
+    void showOversizedSessionIsReportedOnce(CapturedOutput output) {
+        for (int round = 1; round <= 2; round++) {
+            for (int i = 1; i <= 60; i++) {
+                Article article = articleRepository.save(generateArticle(i));
+                commentRepository.saveAll(generateComments(article, 10));
+            }
+            entityManager.flush();
+            entityManager.clear();
+        }
+
+        assertEquals(1, countOccurrences(output.getOut(),
+                "Persistence context holds 660 managed entities, more than the threshold of 500"));
+        assertEquals(1, countOccurrences(output.getOut(), "more than the threshold of"));
+    }
+
+    /**
+     * Checkpoints outside a transaction would have no persistence context to bound, so they fail fast.
+     */
+    @Test
+    @Transactional(propagation = Propagation.NEVER)
+    void showCheckpointRequiresTransaction() {
+        assertThrows(IllegalTransactionStateException.class, () -> boundedPersistenceContext.checkpoint());
+    }
+
+    int countOccurrences(String text, String message) {
+        int count = 0;
+        for (int index = text.indexOf(message); index >= 0; index = text.indexOf(message, index + message.length())) {
+            count++;
+        }
+        return count;
+    }
+
+    Article generateArticle(int number) {
+        return Article.builder()
+                .name("Article " + number)
+                .build();
+    }
+
+    List<Comment> generateComments(Article article, int count) {
+        List<Comment> comments = new ArrayList<>();
+        for (int j = 1; j <= count; j++) {
+            comments.add(Comment.builder()
+                    .article(article)
+                    .text("Comment " + j + " for article " + article.getName())
+                    .build());
+        }
+        return comments;
+    }
+
+}